@@ -0,0 +1,36 @@
+package com.asheck.smatech_authentication_service.audit;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+//Rows are written in JDBC batches by LoginAuditService, the entity only describes the table
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "login_audit", indexes = @Index(name = "idx_login_audit_user_id", columnList = "userId"))
+public class LoginAudit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long userId;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(nullable = false)
+    private Boolean success;
+
+    private String ipAddress;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,6 @@
+package com.asheck.smatech_authentication_service.audit;
+
+import java.time.LocalDateTime;
+
+public record LoginAuditEvent(Long userId, String email, boolean success, String ipAddress, LocalDateTime occurredAt) {
+}
@@ -0,0 +1,142 @@
+package com.asheck.smatech_authentication_service.audit;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Logins are queued and written in JDBC batches off the request thread, a full queue drops the newest event.
+//lastLoginAt is coalesced per user so a burst of logins becomes one UPDATE per user per flush.
+@Slf4j
+@Service
+public class LoginAuditService {
+
+    private static final String INSERT_AUDIT =
+            "INSERT INTO login_audit (user_id, email, success, ip_address, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_LAST_LOGIN =
+            "UPDATE _user SET last_login_at = ?, version = version + 1 WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final BlockingQueue<LoginAuditEvent> queue;
+
+    private final int batchSize;
+
+    private final Map<Long, LocalDateTime> pendingLastLogins = new ConcurrentHashMap<>();
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    public LoginAuditService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${login-audit.queue-capacity:10000}") int queueCapacity,
+            @Value("${login-audit.batch-size:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+    }
+
+    public void recordSuccess(Long userId, String email, String ipAddress) {
+        LocalDateTime now = LocalDateTime.now();
+        pendingLastLogins.merge(userId, now, (previous, latest) -> latest.isAfter(previous) ? latest : previous);
+        enqueue(new LoginAuditEvent(userId, email, true, ipAddress, now));
+    }
+
+    public void recordFailure(Long userId, String email, String ipAddress) {
+        enqueue(new LoginAuditEvent(userId, email, false, ipAddress, LocalDateTime.now()));
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    private void enqueue(LoginAuditEvent event) {
+        if (!queue.offer(event)) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${login-audit.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        //Only drain what was queued on entry, so logins arriving faster than the inserts cannot keep
+        //this loop from reaching the lastLoginAt updates and the drop warning
+        int remaining = queue.size();
+        while (remaining > 0) {
+            List<LoginAuditEvent> batch = new ArrayList<>(Math.min(batchSize, remaining));
+            int drained = queue.drainTo(batch, Math.min(batchSize, remaining));
+            if (drained == 0) {
+                break;
+            }
+            writeAudits(batch);
+            remaining -= drained;
+        }
+        writeLastLogins();
+
+        long dropped = droppedEvents.getAndSet(0);
+        if (dropped > 0) {
+            log.warn("Login audit queue full, dropped {} events", dropped);
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+
+    private void writeAudits(List<LoginAuditEvent> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_AUDIT, batch, batch.size(), (ps, event) -> {
+                if (event.userId() == null) {
+                    ps.setNull(1, Types.BIGINT);
+                } else {
+                    ps.setLong(1, event.userId());
+                }
+                ps.setString(2, event.email());
+                ps.setBoolean(3, event.success());
+                ps.setString(4, event.ipAddress());
+                ps.setTimestamp(5, Timestamp.valueOf(event.occurredAt()));
+            });
+        } catch (DataAccessException e) {
+            log.error("Failed to write {} login audit events", batch.size(), e);
+        }
+    }
+
+    private void writeLastLogins() {
+        List<Map.Entry<Long, LocalDateTime>> lastLogins = new ArrayList<>(pendingLastLogins.size());
+        for (Long userId : pendingLastLogins.keySet()) {
+            LocalDateTime lastLoginAt = pendingLastLogins.remove(userId);
+            if (lastLoginAt != null) {
+                lastLogins.add(Map.entry(userId, lastLoginAt));
+            }
+        }
+        if (lastLogins.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, lastLogins, batchSize, (ps, entry) -> {
+                Timestamp lastLoginAt = Timestamp.valueOf(entry.getValue());
+                ps.setTimestamp(1, lastLoginAt);
+                ps.setLong(2, entry.getKey());
+                ps.setTimestamp(3, lastLoginAt);
+            });
+        } catch (DataAccessException e) {
+            log.error("Failed to update last login for {} users", lastLogins.size(), e);
+        }
+    }
+}
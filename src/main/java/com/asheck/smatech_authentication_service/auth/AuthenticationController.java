@@ -1,10 +1,17 @@
 package com.asheck.smatech_authentication_service.auth;
+import com.asheck.smatech_authentication_service.user.BulkUpdateUsersRequest;
 import com.asheck.smatech_authentication_service.user.Role;
 import com.asheck.smatech_authentication_service.user.UpdateUserRequest;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
 
 @RestController
 @SecurityRequirement(name = "authorization")
@@ -30,37 +37,52 @@ public class AuthenticationController {
         return service.register(request, Role.ADMIN);
     }
 
-    //Login or authenticate a user both customer and admin
+    //Login or authenticate a user both customer and admin, tokenType=OPAQUE issues a short server-side session token
     @PostMapping("/authenticate")
     public ResponseEntity<?> authenticate(
-            @RequestBody AuthenticationRequest request
+            @RequestBody AuthenticationRequest request,
+            @RequestParam(defaultValue = "JWT") TokenType tokenType,
+            HttpServletRequest httpRequest
     ){
-        return ResponseEntity.ok(service.authenticate(request));
+        return ResponseEntity.ok(service.authenticate(request, tokenType, httpRequest.getRemoteAddr()));
     }
 
+    //Read endpoints answer If-None-Match with 304 after a version-only query, before loading any user
     @GetMapping("/get-customers")
-    public ResponseEntity<?> getCustomers(){
-        return ResponseEntity.ok(service.getUsers(Role.CUSTOMER));
+    public ResponseEntity<?> getCustomers(WebRequest webRequest){
+        return getUsers(Role.CUSTOMER, webRequest);
+    }
+
+    //Paginated prefix search over name, email and phone, fuzzy=true also matches close spellings
+    @GetMapping("/search-customers")
+    public ResponseEntity<?> searchCustomers(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ){
+        return ResponseEntity.ok(service.searchUsers(query, Role.CUSTOMER, fuzzy, page, size));
     }
 
     @GetMapping("/get-admins")
-    public ResponseEntity<?> getAdmins(){
-        return ResponseEntity.ok(service.getUsers(Role.ADMIN));
+    public ResponseEntity<?> getAdmins(WebRequest webRequest){
+        return getUsers(Role.ADMIN, webRequest);
     }
 
     @GetMapping("/get-user/{id}")
-    public ResponseEntity<?> getUser(@PathVariable Long id){
-        return ResponseEntity.ok(service.getUserById(id, Role.CUSTOMER));
+    public ResponseEntity<?> getUser(@PathVariable Long id, WebRequest webRequest){
+        return getUserById(id, Role.CUSTOMER, webRequest);
     }
 
     @GetMapping("/get-user-by-token")
-    public ResponseEntity<?> getUserByToken(@RequestParam String token){
-        return ResponseEntity.ok(service.getUserByToken(token, Role.CUSTOMER));
+    public ResponseEntity<?> getUserByToken(@RequestParam String token, WebRequest webRequest){
+        return conditionalGet(service.getUserEtagByToken(token), webRequest,
+                () -> service.getUserByToken(token, Role.CUSTOMER));
     }
 
     @GetMapping("/get-Admin/{id}")
-    public ResponseEntity<?> getAdmin(@PathVariable Long id){
-        return ResponseEntity.ok(service.getUserById(id, Role.ADMIN));
+    public ResponseEntity<?> getAdmin(@PathVariable Long id, WebRequest webRequest){
+        return getUserById(id, Role.ADMIN, webRequest);
     }
 
     @GetMapping("/roles")
@@ -76,4 +98,29 @@ public class AuthenticationController {
         return ResponseEntity.ok(service.updateUser(id, request));
     }
 
+    //Admin only: activate, deactivate, soft delete or change the role of many users in one call
+    @PatchMapping("/bulk-update-users")
+    public ResponseEntity<?> bulkUpdateUsers(
+            @RequestBody BulkUpdateUsersRequest request
+    ){
+        return ResponseEntity.ok(service.bulkUpdateUsers(request));
+    }
+
+    private ResponseEntity<?> getUserById(Long id, Role role, WebRequest webRequest){
+        return conditionalGet(service.getUserEtag(id, role), webRequest, () -> service.getUserById(id, role));
+    }
+
+    private ResponseEntity<?> getUsers(Role role, WebRequest webRequest){
+        return conditionalGet(service.getUsersEtag(role), webRequest, () -> service.getUsers(role));
+    }
+
+    //checkNotModified also sets the ETag header. The same weak validator covers the JSON and CBOR
+    //representations, so Vary: Accept keeps caches from answering one with the other.
+    private ResponseEntity<?> conditionalGet(String etag, WebRequest webRequest, Supplier<?> body){
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(body.get());
+    }
+
 }
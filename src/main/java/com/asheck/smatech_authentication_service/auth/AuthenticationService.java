@@ -1,33 +1,51 @@
 package com.asheck.smatech_authentication_service.auth;
 
+import com.asheck.smatech_authentication_service.audit.LoginAuditService;
 import com.asheck.smatech_authentication_service.config.JwtService;
+import com.asheck.smatech_authentication_service.config.OpaqueTokenService;
+import com.asheck.smatech_authentication_service.config.TokenSession;
+import com.asheck.smatech_authentication_service.events.UserChangeService;
+import com.asheck.smatech_authentication_service.events.UserChangeType;
+import com.asheck.smatech_authentication_service.user.BulkUpdateResult;
+import com.asheck.smatech_authentication_service.user.BulkUpdateUsersRequest;
 import com.asheck.smatech_authentication_service.user.Role;
 import com.asheck.smatech_authentication_service.user.UpdateUserRequest;
 import com.asheck.smatech_authentication_service.user.User;
+import com.asheck.smatech_authentication_service.user.UserVersion;
 import com.asheck.smatech_authentication_service.user.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
 
+    private static final int MIN_SEARCH_LENGTH = 2;
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
 
     private final UserRepository repository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final OpaqueTokenService opaqueTokenService;
+    private final LoginAuditService loginAuditService;
+    private final UserChangeService userChangeService;
 
+    @Transactional
     public ResponseEntity<?>  register(RegisterRequest request, Role role) {
 
         Optional<User> existingUser = repository.findByEmail(request.email());
@@ -48,6 +66,7 @@ public class AuthenticationService {
                 .role(role)
                 .build();
         repository.save(user);
+        userChangeService.record(user.getId(), UserChangeType.REGISTERED);
 
         var jwtToken = jwtService.generateToken(user);
        return  ResponseEntity.status(HttpStatus.CREATED).body(AuthenticationResponse.builder()
@@ -58,26 +77,40 @@ public class AuthenticationService {
     }
 
     public Object authenticate(AuthenticationRequest request) {
+        return authenticate(request, TokenType.JWT, null);
+    }
+
+    public Object authenticate(AuthenticationRequest request, TokenType tokenType, String ipAddress) {
 
         var user = repository.findByEmail(request.getEmail());
 
 
         if (user.isPresent()) {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.getEmail(),
-                            request.getPassword()
-                    )
-            );
-            var jwtToken = jwtService.generateToken(user.get());
+            try {
+                authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(
+                                request.getEmail(),
+                                request.getPassword()
+                        )
+                );
+            } catch (AuthenticationException e) {
+                loginAuditService.recordFailure(user.get().getId(), request.getEmail(), ipAddress);
+                throw e;
+            }
+            loginAuditService.recordSuccess(user.get().getId(), request.getEmail(), ipAddress);
+
+            var token = tokenType == TokenType.OPAQUE
+                    ? opaqueTokenService.issueToken(user.get())
+                    : jwtService.generateToken(user.get());
 
             return AuthenticationResponse.builder()
                     .success(true)
-                    .token(jwtToken)
+                    .token(token)
                     .data(user)
                     .build();
         }else {
 
+            loginAuditService.recordFailure(null, request.getEmail(), ipAddress);
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Incorrect username or password");
         }
 
@@ -99,7 +132,7 @@ public class AuthenticationService {
 
     public User getUserByToken(String token, Role role) {
 
-        final String userEmail = jwtService.extractUsername(token);
+        final String userEmail = resolveTokenEmail(token);
 
         return repository.findByEmail(userEmail)
                 .orElseThrow(
@@ -108,6 +141,35 @@ public class AuthenticationService {
 
     }
 
+    //The *Etag lookups read only the version columns so a 304 never loads the entity
+    public String getUserEtag(long userId, Role role) {
+        return repository.findVersionByIdAndRole(userId, role)
+                .map(UserVersion::toEtag)
+                .orElseThrow(
+                        () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found")
+                );
+    }
+
+    public String getUserEtagByToken(String token) {
+        return repository.findVersionByEmail(resolveTokenEmail(token))
+                .map(UserVersion::toEtag)
+                .orElseThrow(
+                        () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found")
+                );
+    }
+
+    public String getUsersEtag(Role role) {
+        return repository.findCollectionVersionByRole(role).toEtag();
+    }
+
+    private String resolveTokenEmail(String token) {
+        return OpaqueTokenService.isOpaqueToken(token)
+                ? opaqueTokenService.resolve(token)
+                        .map(TokenSession::email)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or expired token"))
+                : jwtService.extractUsername(token);
+    }
+
     public List<User> getUsers(Role role) {
         //get all users with role customer
         return repository.findAllByRole(role).orElseThrow(
@@ -115,6 +177,29 @@ public class AuthenticationService {
         );
     }
 
+    public List<User> searchUsers(String query, Role role, boolean fuzzy, int page, int size) {
+        String term = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (term.length() < MIN_SEARCH_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Search query must be at least " + MIN_SEARCH_LENGTH + " characters");
+        }
+
+        var pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_SEARCH_PAGE_SIZE));
+        String prefix = escapeLike(term) + "%";
+
+        return fuzzy
+                ? repository.searchFuzzy(role.name(), prefix, term, pageable)
+                : repository.searchByPrefix(role.name(), prefix, pageable);
+    }
+
+    private static String escapeLike(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    @Transactional
     public User updateUser(Long id, UpdateUserRequest request) {
         var user = repository.findByIdAndRole(id, Role.CUSTOMER).orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found")
@@ -136,6 +221,59 @@ public class AuthenticationService {
             user.setAddress(request.address());
         }
 
-        return repository.save(user);
+        var updatedUser = repository.save(user);
+        userChangeService.record(updatedUser.getId(), UserChangeType.UPDATED);
+        return updatedUser;
+    }
+
+    //Each field is one set-based UPDATE with its outbox rows inserted just before, role goes last so a role filter still matches for the other fields
+    @Transactional
+    public BulkUpdateResult bulkUpdateUsers(BulkUpdateUsersRequest request) {
+        boolean byIds = request.ids() != null && !request.ids().isEmpty();
+        if (byIds == (request.filterRole() != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Provide either user ids or a role filter");
+        }
+
+        int isActiveUpdated = 0;
+        int isDeletedUpdated = 0;
+        int roleUpdated = 0;
+
+        if (request.isActive() != null) {
+            recordBulkChange(request, byIds, UserChangeType.ACTIVATION_CHANGED);
+            isActiveUpdated = byIds
+                    ? repository.updateIsActiveByIdIn(request.ids(), request.isActive())
+                    : repository.updateIsActiveByRole(request.filterRole(), request.isActive());
+        }
+
+        if (request.isDeleted() != null) {
+            recordBulkChange(request, byIds, UserChangeType.DELETION_CHANGED);
+            isDeletedUpdated = byIds
+                    ? repository.updateIsDeletedByIdIn(request.ids(), request.isDeleted())
+                    : repository.updateIsDeletedByRole(request.filterRole(), request.isDeleted());
+        }
+
+        if (request.role() != null) {
+            recordBulkChange(request, byIds, UserChangeType.ROLE_CHANGED);
+            roleUpdated = byIds
+                    ? repository.updateRoleByIdIn(request.ids(), request.role())
+                    : repository.updateRoleByRole(request.filterRole(), request.role());
+        }
+
+        //JWT requests reload the user and reject disabled or deleted ones, opaque sessions carry a cached role
+        if (byIds) {
+            opaqueTokenService.revokeUsers(request.ids());
+        } else {
+            opaqueTokenService.revokeRole(request.filterRole());
+        }
+
+        return new BulkUpdateResult(isActiveUpdated, isDeletedUpdated, roleUpdated);
+    }
+
+    private void recordBulkChange(BulkUpdateUsersRequest request, boolean byIds, UserChangeType type) {
+        if (byIds) {
+            userChangeService.recordForUserIds(request.ids(), type);
+        } else {
+            userChangeService.recordForRole(request.filterRole(), type);
+        }
     }
 }
@@ -0,0 +1,6 @@
+package com.asheck.smatech_authentication_service.auth;
+
+public enum TokenType {
+    JWT,
+    OPAQUE
+}
@@ -1,5 +1,7 @@
 package com.asheck.smatech_authentication_service.config;
 
+import com.asheck.smatech_authentication_service.user.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,10 +24,16 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final WebAuthenticationDetailsSource DETAILS_SOURCE = new WebAuthenticationDetailsSource();
+
     private final JwtService jwtService;
 
     private final UserDetailsService userDetailsService;
 
+    private final OpaqueTokenService opaqueTokenService;
+
     @Override
     protected void doFilterInternal(
          @NonNull   HttpServletRequest request,
@@ -36,23 +44,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
         final String userEmail;
-        if(authHeader == null || !authHeader.startsWith("Bearer ")){
+        if(authHeader == null || !authHeader.startsWith(BEARER_PREFIX)
+                || SecurityContextHolder.getContext().getAuthentication() != null){
             filterChain.doFilter(request, response);
             return;
          }
-        jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-        if(userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        jwt = authHeader.substring(BEARER_PREFIX.length());
+        if(OpaqueTokenService.isOpaqueToken(jwt)) {
+            authenticateOpaqueToken(jwt, request);
+            filterChain.doFilter(request, response);
+            return;
+        }
+        //Parse and verify the token once, then check subject and expiry against the same claims
+        final Claims claims = jwtService.extractAllClaims(jwt);
+        userEmail = claims.getSubject();
+        if(userEmail != null) {
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            if(jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+            //Deactivated or soft deleted users lose access immediately, not when their token expires
+            if(userDetails.isEnabled() && jwtService.isTokenValid(claims, userDetails)) {
+                UsernamePasswordAuthenticationToken authToken = UsernamePasswordAuthenticationToken.authenticated(
                         userDetails,
                         null,
                         userDetails.getAuthorities()
                 );
 
                 authToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
+                        DETAILS_SOURCE.buildDetails(request)
                 );
 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -62,4 +79,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
 
     }
+
+    //An opaque token is validated by a single store lookup, no signature check or user query needed
+    private void authenticateOpaqueToken(String token, HttpServletRequest request) {
+        opaqueTokenService.resolve(token).ifPresent(session -> {
+            User principal = User.builder()
+                    .id(session.userId())
+                    .email(session.email())
+                    .role(session.role())
+                    .isActive(true)
+                    .isDeleted(false)
+                    .build();
+            UsernamePasswordAuthenticationToken authToken = UsernamePasswordAuthenticationToken.authenticated(
+                    principal,
+                    null,
+                    principal.getAuthorities()
+            );
+
+            authToken.setDetails(
+                    DETAILS_SOURCE.buildDetails(request)
+            );
+
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+        });
+    }
 }
@@ -2,6 +2,7 @@ package com.asheck.smatech_authentication_service.config;
 
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -10,49 +11,76 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.Key;
+import java.util.Base64;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String SECRET_KEY;
+    public static final long TOKEN_VALIDITY_MS = 10000 * 60 * 24;
 
+    //base64url of {"alg":"HS256"}, the header jjwt writes for every token we sign
+    private static final String HS256_HEADER = "eyJhbGciOiJIUzI1NiJ9";
 
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final Key signInKey;
+
+    private final ThreadLocal<Mac> hmacSha256;
+
+    private final JwtParser jwtParser;
+
+    public JwtService(@Value("${jwt.secret}") String secretKey) {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        this.signInKey = Keys.hmacShaKeyFor(keyBytes);
+        this.hmacSha256 = ThreadLocal.withInitial(() -> newHmacSha256(keyBytes));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public String generateToken(UserDetails userDetails){
-        return generateToken(new HashMap<>(), userDetails);
+        return generateToken(Map.of(), userDetails);
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails){
+        if(extraClaims.isEmpty() && isPlainAscii(userDetails.getUsername())){
+            return generateSubjectOnlyToken(userDetails.getUsername(), System.currentTimeMillis());
+        }
         return Jwts.builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 10000 * 60 * 24))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY_MS))
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails){
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(extractAllClaims(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(Claims claims, UserDetails userDetails){
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    //exp is held as epoch seconds, compared against the clock directly instead of through a Date
+    private boolean isTokenExpired(Claims claims) {
+        long expiresAtMillis = ((Number) claims.get(Claims.EXPIRATION)).longValue() * 1000;
+        return expiresAtMillis < System.currentTimeMillis();
     }
 
 
@@ -61,17 +89,41 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
-    private Claims  extractAllClaims(String token){
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+    public Claims extractAllClaims(String token){
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    //Writes the same bytes as the jjwt builder for {sub, iat, exp} without going through Jackson or a new Mac
+    private String generateSubjectOnlyToken(String subject, long nowMillis) {
+        long issuedAt = nowMillis / 1000;
+        long expiresAt = (nowMillis + TOKEN_VALIDITY_MS) / 1000;
+        String claims = "{\"sub\":\"" + subject + "\",\"iat\":" + issuedAt + ",\"exp\":" + expiresAt + "}";
+
+        String signingInput = HS256_HEADER + "." + BASE64URL.encodeToString(claims.getBytes(StandardCharsets.US_ASCII));
+        byte[] signature = hmacSha256.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + BASE64URL.encodeToString(signature);
+    }
+
+    //Anything Jackson would escape or encode as multi-byte UTF-8 goes through the jjwt builder instead
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7E || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Mac newHmacSha256(byte[] keyBytes) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(new SecretKeySpec(keyBytes, HMAC_SHA256));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialise " + HMAC_SHA256, e);
+        }
     }
 }
@@ -0,0 +1,90 @@
+package com.asheck.smatech_authentication_service.config;
+
+import com.asheck.smatech_authentication_service.user.Role;
+import com.asheck.smatech_authentication_service.user.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class OpaqueTokenService {
+
+    private static final int TOKEN_BYTES = 24;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final Map<String, TokenSession> sessions = new ConcurrentHashMap<>();
+
+    private final Clock clock;
+
+    public OpaqueTokenService() {
+        this(Clock.systemUTC());
+    }
+
+    @Autowired
+    public OpaqueTokenService(Clock clock) {
+        this.clock = clock;
+    }
+
+    //Opaque tokens are plain base64url, so unlike a JWT they never contain a '.'
+    public static boolean isOpaqueToken(String token) {
+        return token.indexOf('.') < 0;
+    }
+
+    public String issueToken(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = ENCODER.encodeToString(bytes);
+
+        sessions.put(token, new TokenSession(
+                user.getId(),
+                user.getEmail(),
+                user.getRole(),
+                clock.millis() + JwtService.TOKEN_VALIDITY_MS
+        ));
+        return token;
+    }
+
+    public Optional<TokenSession> resolve(String token) {
+        TokenSession session = sessions.get(token);
+        if (session == null) {
+            return Optional.empty();
+        }
+        if (session.isExpired(clock.millis())) {
+            sessions.remove(token, session);
+            return Optional.empty();
+        }
+        return Optional.of(session);
+    }
+
+    public void revoke(String token) {
+        sessions.remove(token);
+    }
+
+    public void revokeUsers(Collection<Long> userIds) {
+        Set<Long> revoked = new HashSet<>(userIds);
+        sessions.values().removeIf(session -> revoked.contains(session.userId()));
+    }
+
+    public void revokeRole(Role role) {
+        sessions.values().removeIf(session -> session.role() == role);
+    }
+
+    @Scheduled(fixedDelayString = "${opaque-token.sweep-interval-ms:60000}")
+    public void sweepExpiredSessions() {
+        long now = clock.millis();
+        sessions.values().removeIf(session -> session.isExpired(now));
+    }
+}
@@ -0,0 +1,10 @@
+package com.asheck.smatech_authentication_service.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//Kept out of the application class so sliced tests do not start the background jobs
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,9 +1,12 @@
 package com.asheck.smatech_authentication_service.config;
 
 
+import com.asheck.smatech_authentication_service.user.Role;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -34,6 +37,10 @@ public class SecurityConfiguration {
                 .authenticationProvider(authenticationProvider)
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(auth -> auth
+                        //SSE completions come back as an ASYNC dispatch, the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers(HttpMethod.PATCH, "/api/v1/auth/bulk-update-users").hasAuthority(Role.ADMIN.name())
+                        .requestMatchers("/api/v1/auth/user-changes", "/api/v1/auth/user-changes/**").hasAuthority(Role.ADMIN.name())
                         .requestMatchers(
                                 "/error",
                                 "/docs/**",
@@ -0,0 +1,10 @@
+package com.asheck.smatech_authentication_service.config;
+
+import com.asheck.smatech_authentication_service.user.Role;
+
+public record TokenSession(Long userId, String email, Role role, long expiresAt) {
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
@@ -0,0 +1,7 @@
+package com.asheck.smatech_authentication_service.events;
+
+import java.util.List;
+
+//nextOffset is passed back as ?after= (or Last-Event-ID on the stream) to resume
+public record UserChangeBatch(List<UserChangeEvent> events, long nextOffset) {
+}
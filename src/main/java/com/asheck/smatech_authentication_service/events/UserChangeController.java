@@ -0,0 +1,35 @@
+package com.asheck.smatech_authentication_service.events;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@SecurityRequirement(name = "authorization")
+@RequestMapping("/api/v1/auth/user-changes")
+@RequiredArgsConstructor
+public class UserChangeController {
+
+    private final UserChangeService service;
+
+    //Poll for the next batch of user changes after the given offset
+    @GetMapping
+    public ResponseEntity<?> getChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit
+    ){
+        return ResponseEntity.ok(service.getChanges(after, limit));
+    }
+
+    //Stream batches as server-sent events, reconnecting clients resume from Last-Event-ID
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId
+    ){
+        return service.subscribe(lastEventId != null ? lastEventId : after);
+    }
+}
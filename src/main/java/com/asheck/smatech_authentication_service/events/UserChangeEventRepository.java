@@ -0,0 +1,37 @@
+package com.asheck.smatech_authentication_service.events;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface UserChangeEventRepository extends JpaRepository<UserChangeEvent, Long> {
+
+    List<UserChangeEvent> findBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    @Query("select min(e.seq) from UserChangeEvent e")
+    Long findMinSeq();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_change_event (user_id, type, created_at)
+            SELECT u.id, :type, now() FROM _user u WHERE u.id IN (:ids)
+            """, nativeQuery = true)
+    int insertForUserIds(@Param("ids") Collection<Long> ids, @Param("type") String type);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_change_event (user_id, type, created_at)
+            SELECT u.id, :type, now() FROM _user u WHERE u.role = :role
+            """, nativeQuery = true)
+    int insertForRole(@Param("role") String role, @Param("type") String type);
+
+    @Modifying
+    @Query("delete from UserChangeEvent e where e.createdAt < :cutoff and e.seq is not null")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,60 @@
+package com.asheck.smatech_authentication_service.events;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Stamps committed outbox rows with a gap-free offset. Only one transaction at a time can hold the
+//counter row, and it only sees committed rows, so offsets follow commit order and a consumer that
+//has read up to N can never later see a new row numbered N or below.
+@Component
+@RequiredArgsConstructor
+public class UserChangeSequencer {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String LOCK_COUNTER =
+            "SELECT last_seq FROM user_change_sequence WHERE id = 1 FOR UPDATE";
+
+    private static final String INSERT_COUNTER =
+            "INSERT INTO user_change_sequence (id, last_seq) " +
+            "SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM user_change_sequence WHERE id = 1)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${user-changes.sequence-interval-ms:200}")
+    public int assignOffsets() {
+        List<Long> counter = jdbcTemplate.queryForList(LOCK_COUNTER, Long.class);
+        if (counter.isEmpty()) {
+            jdbcTemplate.update(INSERT_COUNTER);
+            counter = jdbcTemplate.queryForList(LOCK_COUNTER, Long.class);
+        }
+        long lastSeq = counter.get(0);
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM user_change_event WHERE seq IS NULL ORDER BY id LIMIT ?", Long.class, BATCH_SIZE);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> offsets = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            offsets.add(new Object[]{++lastSeq, id});
+        }
+        jdbcTemplate.batchUpdate("UPDATE user_change_event SET seq = ? WHERE id = ?", offsets);
+        jdbcTemplate.update("UPDATE user_change_sequence SET last_seq = ? WHERE id = 1", lastSeq);
+        return ids.size();
+    }
+
+    public long getLastSeq() {
+        List<Long> counter = jdbcTemplate.queryForList(
+                "SELECT last_seq FROM user_change_sequence WHERE id = 1", Long.class);
+        return counter.isEmpty() ? 0 : counter.get(0);
+    }
+}
@@ -0,0 +1,228 @@
+package com.asheck.smatech_authentication_service.events;
+
+import com.asheck.smatech_authentication_service.user.Role;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Service
+public class UserChangeService {
+
+    public static final int MAX_BATCH_SIZE = 500;
+
+    private static final long STREAM_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final UserChangeEventRepository repository;
+
+    private final UserChangeSequencer sequencer;
+
+    //SSE writes can block on slow clients, so they run here rather than on the shared scheduler
+    private final Executor sendExecutor;
+
+    private final int maxSubscribers;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    @Value("${user-changes.retention-days:7}")
+    private long retentionDays;
+
+    @Autowired
+    public UserChangeService(
+            UserChangeEventRepository repository,
+            UserChangeSequencer sequencer,
+            @Value("${user-changes.stream-threads:4}") int streamThreads,
+            @Value("${user-changes.max-subscribers:100}") int maxSubscribers
+    ) {
+        this(repository, sequencer,
+                Executors.newFixedThreadPool(streamThreads, new CustomizableThreadFactory("user-changes-stream-")),
+                maxSubscribers);
+    }
+
+    public UserChangeService(
+            UserChangeEventRepository repository,
+            UserChangeSequencer sequencer,
+            Executor sendExecutor,
+            int maxSubscribers
+    ) {
+        this.repository = repository;
+        this.sequencer = sequencer;
+        this.sendExecutor = sendExecutor;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    //Callers are expected to run inside the transaction that changed the user
+    public void record(Long userId, UserChangeType type) {
+        repository.save(UserChangeEvent.builder()
+                .userId(userId)
+                .type(type)
+                .build());
+    }
+
+    public void recordForUserIds(Collection<Long> userIds, UserChangeType type) {
+        repository.insertForUserIds(userIds, type.name());
+    }
+
+    public void recordForRole(Role role, UserChangeType type) {
+        repository.insertForRole(role.name(), type.name());
+    }
+
+    public UserChangeBatch getChanges(long after, int limit) {
+        assertRetained(after);
+        int batchSize = Math.min(Math.max(limit, 1), MAX_BATCH_SIZE);
+        return nextBatch(after, batchSize);
+    }
+
+    //Each distinct offset costs a query per poll, so the number of open streams is capped
+    public synchronized SseEmitter subscribe(long after) {
+        assertRetained(after);
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many open user change streams, poll /api/v1/auth/user-changes instead");
+        }
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(emitter, after);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    protected SseEmitter createEmitter() {
+        return new SseEmitter(STREAM_TIMEOUT_MS);
+    }
+
+    //Subscribers sharing an offset share one query, so a lagging stream never holds back the others
+    @Scheduled(fixedDelayString = "${user-changes.poll-interval-ms:1000}")
+    public void publish() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<Subscriber>> byOffset = new HashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.sending.get()) {
+                byOffset.computeIfAbsent(subscriber.offset, offset -> new ArrayList<>()).add(subscriber);
+            }
+        }
+
+        long firstRetained = firstRetainedOffset();
+        byOffset.forEach((offset, group) -> {
+            if (offset + 1 < firstRetained) {
+                group.forEach(this::requestResync);
+                return;
+            }
+            UserChangeBatch batch = nextBatch(offset, MAX_BATCH_SIZE);
+            if (!batch.events().isEmpty()) {
+                group.forEach(subscriber -> send(subscriber, batch));
+            }
+        });
+    }
+
+    @Transactional
+    @Scheduled(cron = "${user-changes.cleanup-cron:0 0 3 * * *}")
+    public void deleteExpiredEvents() {
+        int deleted = repository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Deleted {} user change events older than {} days", deleted, retentionDays);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sendExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private UserChangeBatch nextBatch(long after, int batchSize) {
+        List<UserChangeEvent> events = repository.findBySeqGreaterThanOrderBySeqAsc(after, PageRequest.of(0, batchSize));
+        long nextOffset = events.isEmpty() ? after : events.get(events.size() - 1).getSeq();
+        return new UserChangeBatch(events, nextOffset);
+    }
+
+    //Offsets are gap-free, so anything between a consumer's offset and the oldest kept row was pruned
+    private void assertRetained(long after) {
+        if (after + 1 < firstRetainedOffset()) {
+            throw new ResponseStatusException(HttpStatus.GONE,
+                    "Offset " + after + " has been pruned, reload users and resume from offset " + sequencer.getLastSeq());
+        }
+    }
+
+    private long firstRetainedOffset() {
+        Long minSeq = repository.findMinSeq();
+        return minSeq != null ? minSeq : sequencer.getLastSeq() + 1;
+    }
+
+    private void send(Subscriber subscriber, UserChangeBatch batch) {
+        subscriber.sending.set(true);
+        try {
+            sendExecutor.execute(() -> {
+                try {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(batch.nextOffset()))
+                            .name("user-changes")
+                            .data(batch));
+                    subscriber.offset = batch.nextOffset();
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(subscriber);
+                    subscriber.emitter.completeWithError(e);
+                } finally {
+                    subscriber.sending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            subscriber.sending.set(false);
+        }
+    }
+
+    private void requestResync(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .name("resync")
+                    .data(sequencer.getLastSeq()));
+            subscriber.emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private volatile long offset;
+
+        private Subscriber(SseEmitter emitter, long offset) {
+            this.emitter = emitter;
+            this.offset = offset;
+        }
+    }
+}
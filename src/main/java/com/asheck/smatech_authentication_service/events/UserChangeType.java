@@ -0,0 +1,9 @@
+package com.asheck.smatech_authentication_service.events;
+
+public enum UserChangeType {
+    REGISTERED,
+    UPDATED,
+    ACTIVATION_CHANGED,
+    DELETION_CHANGED,
+    ROLE_CHANGED
+}
@@ -0,0 +1,4 @@
+package com.asheck.smatech_authentication_service.user;
+
+public record BulkUpdateResult(int isActiveUpdated, int isDeletedUpdated, int roleUpdated) {
+}
@@ -0,0 +1,8 @@
+package com.asheck.smatech_authentication_service.user;
+
+import java.util.List;
+
+//Targets either the given ids or every user with filterRole, never both, null fields are left unchanged.
+//Unlike updateUser this is an admin operation and ids may refer to ADMIN as well as CUSTOMER users.
+public record BulkUpdateUsersRequest(List<Long> ids, Role filterRole, Boolean isActive, Boolean isDeleted, Role role) {
+}
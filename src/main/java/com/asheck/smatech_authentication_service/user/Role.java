@@ -1,6 +1,18 @@
 package com.asheck.smatech_authentication_service.user;
 
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
 public enum Role {
     CUSTOMER,
-    ADMIN
+    ADMIN;
+
+    //Shared immutable authorities so building a principal does not allocate a new list per request
+    private final List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(name()));
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
 }
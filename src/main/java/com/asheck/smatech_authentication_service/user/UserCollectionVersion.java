@@ -0,0 +1,9 @@
+package com.asheck.smatech_authentication_service.user;
+
+//Every committed change adds to the version sum, and the count catches removals
+public record UserCollectionVersion(Long count, Long versionSum) {
+
+    public String toEtag() {
+        return "W/\"" + count + "-" + (versionSum == null ? 0 : versionSum) + "\"";
+    }
+}
@@ -1,7 +1,12 @@
 package com.asheck.smatech_authentication_service.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +17,69 @@ public interface UserRepository extends JpaRepository  <User, Long> {
     Optional<User> findByIdAndRole(long id, Role role);
 
     Optional<List<User>> findAllByRole(Role role);
+
+    @Query("select new com.asheck.smatech_authentication_service.user.UserVersion(u.version) " +
+            "from User u where u.id = :id and u.role = :role")
+    Optional<UserVersion> findVersionByIdAndRole(@Param("id") long id, @Param("role") Role role);
+
+    @Query("select new com.asheck.smatech_authentication_service.user.UserVersion(u.version) " +
+            "from User u where u.email = :email")
+    Optional<UserVersion> findVersionByEmail(@Param("email") String email);
+
+    @Query("select new com.asheck.smatech_authentication_service.user.UserCollectionVersion(count(u), sum(u.version)) " +
+            "from User u where u.role = :role")
+    UserCollectionVersion findCollectionVersionByRole(@Param("role") Role role);
+
+    //Served by the trigram indexes in db/customer-search-indexes.sql, which also cover anchored LIKE prefixes
+    @Query(value = """
+            SELECT * FROM _user u
+            WHERE u.role = :role
+              AND (lower(u.first_name) LIKE :prefix
+                OR lower(u.last_name) LIKE :prefix
+                OR lower(u.email) LIKE :prefix
+                OR u.phone_number LIKE :prefix)
+            ORDER BY u.id
+            """, nativeQuery = true)
+    List<User> searchByPrefix(@Param("role") String role, @Param("prefix") String prefix, Pageable pageable);
+
+    @Query(value = """
+            SELECT * FROM _user u
+            WHERE u.role = :role
+              AND (lower(u.first_name) LIKE :prefix
+                OR lower(u.last_name) LIKE :prefix
+                OR lower(u.email) LIKE :prefix
+                OR u.phone_number LIKE :prefix
+                OR lower(u.first_name) % :term
+                OR lower(u.last_name) % :term
+                OR lower(u.email) % :term)
+            ORDER BY greatest(
+                similarity(lower(u.first_name), :term),
+                similarity(lower(u.last_name), :term),
+                similarity(lower(u.email), :term)) DESC, u.id
+            """, nativeQuery = true)
+    List<User> searchFuzzy(@Param("role") String role, @Param("prefix") String prefix, @Param("term") String term, Pageable pageable);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.isActive = :isActive, u.updatedAt = local datetime, u.version = u.version + 1 where u.id in :ids")
+    int updateIsActiveByIdIn(@Param("ids") Collection<Long> ids, @Param("isActive") Boolean isActive);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.isActive = :isActive, u.updatedAt = local datetime, u.version = u.version + 1 where u.role = :filterRole")
+    int updateIsActiveByRole(@Param("filterRole") Role filterRole, @Param("isActive") Boolean isActive);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.isDeleted = :isDeleted, u.updatedAt = local datetime, u.version = u.version + 1 where u.id in :ids")
+    int updateIsDeletedByIdIn(@Param("ids") Collection<Long> ids, @Param("isDeleted") Boolean isDeleted);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.isDeleted = :isDeleted, u.updatedAt = local datetime, u.version = u.version + 1 where u.role = :filterRole")
+    int updateIsDeletedByRole(@Param("filterRole") Role filterRole, @Param("isDeleted") Boolean isDeleted);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.role = :role, u.updatedAt = local datetime, u.version = u.version + 1 where u.id in :ids")
+    int updateRoleByIdIn(@Param("ids") Collection<Long> ids, @Param("role") Role role);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.role = :role, u.updatedAt = local datetime, u.version = u.version + 1 where u.role = :filterRole")
+    int updateRoleByRole(@Param("filterRole") Role filterRole, @Param("role") Role role);
 }
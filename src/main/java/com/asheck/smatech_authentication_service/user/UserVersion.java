@@ -0,0 +1,11 @@
+package com.asheck.smatech_authentication_service.user;
+
+//The version is bumped in the same transaction as every change to the user's JSON, lastLoginAt included,
+//so unlike a timestamp it cannot fall behind a change that committed late. Weak, because the same user
+//is served as JSON or CBOR, gzipped or not, and Tomcat will not compress a response with a strong ETag.
+public record UserVersion(Long version) {
+
+    public String toEtag() {
+        return "W/\"" + (version == null ? 0 : version) + "\"";
+    }
+}
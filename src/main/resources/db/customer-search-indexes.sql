@@ -0,0 +1,12 @@
+-- Runs on every startup after Hibernate has updated the schema (spring.jpa.defer-datasource-initialization).
+-- Every statement is idempotent and any failure stops startup, so search never runs without its indexes.
+-- Trigram GIN indexes serve both the anchored LIKE prefix search and the fuzzy % match on customers.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- CONCURRENTLY keeps _user writable while the indexes build on first deploy. The script runs in
+-- autocommit mode, which CONCURRENTLY requires. If a build is interrupted it leaves an INVALID
+-- index that IF NOT EXISTS will skip, so drop it by hand and restart to rebuild.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_first_name_trgm ON _user USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_last_name_trgm ON _user USING gin (lower(last_name) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_email_trgm ON _user USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_phone_number_trgm ON _user USING gin (phone_number gin_trgm_ops);
@@ -0,0 +1,3 @@
+-- Runs on every startup after Hibernate has added the version column (spring.jpa.defer-datasource-initialization).
+-- Rows created before optimistic locking have no version, give them a starting one so ETags and merges work.
+UPDATE _user SET version = 0 WHERE version IS NULL;
@@ -0,0 +1,194 @@
+package com.asheck.smatech_authentication_service;
+
+import com.asheck.smatech_authentication_service.auth.AuthenticationController;
+import com.asheck.smatech_authentication_service.auth.AuthenticationService;
+import com.asheck.smatech_authentication_service.config.JwtAuthenticationFilter;
+import com.asheck.smatech_authentication_service.config.JwtService;
+import com.asheck.smatech_authentication_service.config.OpaqueTokenService;
+import com.asheck.smatech_authentication_service.config.SecurityConfiguration;
+import com.asheck.smatech_authentication_service.config.WebConfig;
+import com.asheck.smatech_authentication_service.user.BulkUpdateResult;
+import com.asheck.smatech_authentication_service.user.BulkUpdateUsersRequest;
+import com.asheck.smatech_authentication_service.user.Role;
+import com.asheck.smatech_authentication_service.user.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AuthenticationController.class)
+@Import({SecurityConfiguration.class, JwtAuthenticationFilter.class, WebConfig.class})
+class AuthenticationControllerTest {
+
+    private static final String USER_ETAG = "W/\"3\"";
+
+    private static final String CUSTOMERS_ETAG = "W/\"2-7\"";
+
+    private static final String PROMOTE_ALL_CUSTOMERS = "{\"filterRole\":\"CUSTOMER\",\"role\":\"ADMIN\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private AuthenticationService authenticationService;
+
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private OpaqueTokenService opaqueTokenService;
+
+    @MockitoBean
+    private UserDetailsService userDetailsService;
+
+    @MockitoBean
+    private AuthenticationProvider authenticationProvider;
+
+    @Test
+    void testBulkUpdateUsers_Anonymous_ShouldBeForbidden() throws Exception {
+        mockMvc.perform(patch("/api/v1/auth/bulk-update-users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(PROMOTE_ALL_CUSTOMERS))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(authenticationService);
+    }
+
+    @Test
+    @WithMockUser(authorities = "CUSTOMER")
+    void testBulkUpdateUsers_Customer_ShouldBeForbidden() throws Exception {
+        mockMvc.perform(patch("/api/v1/auth/bulk-update-users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(PROMOTE_ALL_CUSTOMERS))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(authenticationService);
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void testBulkUpdateUsers_Admin_ShouldBeAllowed() throws Exception {
+        when(authenticationService.bulkUpdateUsers(any(BulkUpdateUsersRequest.class)))
+                .thenReturn(new BulkUpdateResult(0, 0, 3));
+
+        mockMvc.perform(patch("/api/v1/auth/bulk-update-users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(PROMOTE_ALL_CUSTOMERS))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetUser_MatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        when(authenticationService.getUserEtag(1L, Role.CUSTOMER)).thenReturn(USER_ETAG);
+
+        mockMvc.perform(get("/api/v1/auth/get-user/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, USER_ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, USER_ETAG))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+
+        verify(authenticationService, never()).getUserById(anyLong(), any());
+    }
+
+    @Test
+    void testGetUser_StaleIfNoneMatch_ShouldReturnUserWithEtag() throws Exception {
+        when(authenticationService.getUserEtag(1L, Role.CUSTOMER)).thenReturn(USER_ETAG);
+        when(authenticationService.getUserById(1L, Role.CUSTOMER)).thenReturn(customer());
+
+        mockMvc.perform(get("/api/v1/auth/get-user/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, USER_ETAG))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+    }
+
+    @Test
+    void testGetCustomers_MatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        when(authenticationService.getUsersEtag(Role.CUSTOMER)).thenReturn(CUSTOMERS_ETAG);
+
+        mockMvc.perform(get("/api/v1/auth/get-customers")
+                        .header(HttpHeaders.IF_NONE_MATCH, CUSTOMERS_ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, CUSTOMERS_ETAG));
+
+        verify(authenticationService, never()).getUsers(any());
+    }
+
+    @Test
+    void testGetCustomers_NoIfNoneMatch_ShouldReturnUsersWithEtag() throws Exception {
+        when(authenticationService.getUsersEtag(Role.CUSTOMER)).thenReturn(CUSTOMERS_ETAG);
+        when(authenticationService.getUsers(Role.CUSTOMER)).thenReturn(List.of(customer()));
+
+        mockMvc.perform(get("/api/v1/auth/get-customers"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, CUSTOMERS_ETAG));
+    }
+
+    @Test
+    void testGetUser_Json_ShouldNotExposeUserDetailsProperties() throws Exception {
+        when(authenticationService.getUserEtag(1L, Role.CUSTOMER)).thenReturn(USER_ETAG);
+        when(authenticationService.getUserById(1L, Role.CUSTOMER)).thenReturn(customer());
+
+        mockMvc.perform(get("/api/v1/auth/get-user/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.email").value("john.doe@example.com"))
+                .andExpect(jsonPath("$.role").value("CUSTOMER"))
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andExpect(jsonPath("$.username").doesNotExist())
+                .andExpect(jsonPath("$.authorities").doesNotExist())
+                .andExpect(jsonPath("$.enabled").doesNotExist())
+                .andExpect(jsonPath("$.accountNonExpired").doesNotExist())
+                .andExpect(jsonPath("$.accountNonLocked").doesNotExist())
+                .andExpect(jsonPath("$.credentialsNonExpired").doesNotExist());
+    }
+
+    @Test
+    void testGetUser_AcceptCbor_ShouldReturnCbor() throws Exception {
+        when(authenticationService.getUserEtag(1L, Role.CUSTOMER)).thenReturn(USER_ETAG);
+        when(authenticationService.getUserById(1L, Role.CUSTOMER)).thenReturn(customer());
+
+        byte[] body = mockMvc.perform(get("/api/v1/auth/get-user/1")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode user = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertEquals("john.doe@example.com", user.get("email").asText());
+    }
+
+    private User customer() {
+        return User.builder()
+                .id(1L)
+                .firstName("John")
+                .lastName("Doe")
+                .email("john.doe@example.com")
+                .role(Role.CUSTOMER)
+                .build();
+    }
+}
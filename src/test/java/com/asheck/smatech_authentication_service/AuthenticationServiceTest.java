@@ -1,10 +1,15 @@
 package com.asheck.smatech_authentication_service;
 
+import com.asheck.smatech_authentication_service.audit.LoginAuditService;
 import com.asheck.smatech_authentication_service.auth.AuthenticationRequest;
 import com.asheck.smatech_authentication_service.auth.AuthenticationResponse;
 import com.asheck.smatech_authentication_service.auth.AuthenticationService;
 import com.asheck.smatech_authentication_service.auth.RegisterRequest;
+import com.asheck.smatech_authentication_service.auth.TokenType;
 import com.asheck.smatech_authentication_service.config.JwtService;
+import com.asheck.smatech_authentication_service.config.OpaqueTokenService;
+import com.asheck.smatech_authentication_service.events.UserChangeService;
+import com.asheck.smatech_authentication_service.events.UserChangeType;
 import com.asheck.smatech_authentication_service.user.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -24,6 +30,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +45,18 @@ class AuthenticationServiceTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private OpaqueTokenService opaqueTokenService;
+
+    @Mock
+    private LoginAuditService loginAuditService;
+
+    @Mock
+    private UserChangeService userChangeService;
+
 
     @InjectMocks
     private AuthenticationService authenticationService;
@@ -93,6 +112,20 @@ class AuthenticationServiceTest {
         assertEquals("mockedJwtToken", ((AuthenticationResponse) response).getToken());
     }
 
+    @Test
+    void testAuthenticate_OpaqueTokenType_ShouldIssueOpaqueToken() {
+        AuthenticationRequest authRequest = new AuthenticationRequest("john.doe@example.com", "password");
+        when(userRepository.findByEmail(authRequest.getEmail())).thenReturn(Optional.of(user));
+        when(opaqueTokenService.issueToken(user)).thenReturn("mockedOpaqueToken");
+
+        Object response = authenticationService.authenticate(authRequest, TokenType.OPAQUE, "10.0.0.1");
+
+        assertEquals("mockedOpaqueToken", ((AuthenticationResponse) response).getToken());
+        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(jwtService, never()).generateToken(any(User.class));
+        verify(loginAuditService).recordSuccess(1L, "john.doe@example.com", "10.0.0.1");
+    }
+
     @Test
     void testAuthenticate_InvalidCredentials_ShouldReturnUnauthorizedResponse() {
         AuthenticationRequest authRequest = new AuthenticationRequest("wrong@example.com", "password");
@@ -158,6 +191,7 @@ class AuthenticationServiceTest {
 
         assertEquals("Jane", updatedUser.getFirstName());
         assertEquals("Doe", updatedUser.getLastName());
+        verify(userChangeService).record(1L, UserChangeType.UPDATED);
     }
 
     @Test
@@ -167,5 +201,99 @@ class AuthenticationServiceTest {
 
         assertThrows(ResponseStatusException.class, () -> authenticationService.updateUser(1L, updateRequest));
     }
-}
 
+    @Test
+    void testBulkUpdateUsers_ByIds_ShouldRunSetBasedUpdatesAndRevokeSessions() {
+        List<Long> ids = List.of(1L, 2L, 3L);
+        BulkUpdateUsersRequest request = new BulkUpdateUsersRequest(ids, null, false, null, Role.ADMIN);
+        when(userRepository.updateIsActiveByIdIn(ids, false)).thenReturn(3);
+        when(userRepository.updateRoleByIdIn(ids, Role.ADMIN)).thenReturn(2);
+
+        BulkUpdateResult result = authenticationService.bulkUpdateUsers(request);
+
+        assertEquals(new BulkUpdateResult(3, 0, 2), result);
+        verify(userRepository, never()).updateIsDeletedByIdIn(any(), any());
+        verify(userRepository, never()).save(any(User.class));
+        verify(opaqueTokenService).revokeUsers(ids);
+    }
+
+    @Test
+    void testBulkUpdateUsers_ByRole_ShouldUpdateRoleLast() {
+        BulkUpdateUsersRequest request = new BulkUpdateUsersRequest(null, Role.CUSTOMER, null, true, Role.ADMIN);
+        when(userRepository.updateIsDeletedByRole(Role.CUSTOMER, true)).thenReturn(5);
+        when(userRepository.updateRoleByRole(Role.CUSTOMER, Role.ADMIN)).thenReturn(5);
+
+        BulkUpdateResult result = authenticationService.bulkUpdateUsers(request);
+
+        assertEquals(new BulkUpdateResult(0, 5, 5), result);
+        var inOrder = inOrder(userChangeService, userRepository);
+        inOrder.verify(userChangeService).recordForRole(Role.CUSTOMER, UserChangeType.DELETION_CHANGED);
+        inOrder.verify(userRepository).updateIsDeletedByRole(Role.CUSTOMER, true);
+        inOrder.verify(userChangeService).recordForRole(Role.CUSTOMER, UserChangeType.ROLE_CHANGED);
+        inOrder.verify(userRepository).updateRoleByRole(Role.CUSTOMER, Role.ADMIN);
+        verify(opaqueTokenService).revokeRole(Role.CUSTOMER);
+    }
+
+    @Test
+    void testBulkUpdateUsers_IdsAndRoleFilter_ShouldThrowException() {
+        BulkUpdateUsersRequest request = new BulkUpdateUsersRequest(List.of(1L), Role.CUSTOMER, false, null, null);
+
+        assertThrows(ResponseStatusException.class, () -> authenticationService.bulkUpdateUsers(request));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testBulkUpdateUsers_NoTarget_ShouldThrowException() {
+        BulkUpdateUsersRequest request = new BulkUpdateUsersRequest(List.of(), null, false, null, null);
+
+        assertThrows(ResponseStatusException.class, () -> authenticationService.bulkUpdateUsers(request));
+    }
+
+    @Test
+    void testSearchUsers_ShouldEscapePrefixAndBoundPageSize() {
+        when(userRepository.searchByPrefix("CUSTOMER", "jo\\_h%", PageRequest.of(0, 50))).thenReturn(List.of(user));
+
+        List<User> users = authenticationService.searchUsers("  Jo_H ", Role.CUSTOMER, false, 0, 10_000);
+
+        assertEquals(List.of(user), users);
+    }
+
+    @Test
+    void testSearchUsers_QueryTooShort_ShouldThrowException() {
+        assertThrows(ResponseStatusException.class,
+                () -> authenticationService.searchUsers("j", Role.CUSTOMER, true, 0, 20));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testAuthenticate_UnknownUser_ShouldRecordFailedLogin() {
+        AuthenticationRequest authRequest = new AuthenticationRequest("wrong@example.com", "password");
+        when(userRepository.findByEmail(authRequest.getEmail())).thenReturn(Optional.empty());
+
+        assertThrows(ResponseStatusException.class,
+                () -> authenticationService.authenticate(authRequest, TokenType.JWT, "10.0.0.1"));
+        verify(loginAuditService).recordFailure(null, "wrong@example.com", "10.0.0.1");
+        verify(loginAuditService, never()).recordSuccess(any(), any(), any());
+    }
+
+    @Test
+    void testGetUserEtag_ShouldChangeWhenUserLogsIn() {
+        when(userRepository.findVersionByIdAndRole(1L, Role.CUSTOMER))
+                .thenReturn(Optional.of(new UserVersion(3L)))
+                .thenReturn(Optional.of(new UserVersion(4L)));
+
+        String before = authenticationService.getUserEtag(1L, Role.CUSTOMER);
+        String after = authenticationService.getUserEtag(1L, Role.CUSTOMER);
+
+        assertTrue(before.startsWith("W/\"") && before.endsWith("\""));
+        assertNotEquals(before, after);
+        verify(userRepository, never()).findByIdAndRole(anyLong(), any());
+    }
+
+    @Test
+    void testGetUserEtag_UserNotFound_ShouldThrowException() {
+        when(userRepository.findVersionByIdAndRole(1L, Role.CUSTOMER)).thenReturn(Optional.empty());
+
+        assertThrows(ResponseStatusException.class, () -> authenticationService.getUserEtag(1L, Role.CUSTOMER));
+    }
+}
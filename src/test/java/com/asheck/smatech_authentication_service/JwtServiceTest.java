@@ -0,0 +1,91 @@
+package com.asheck.smatech_authentication_service;
+
+import com.asheck.smatech_authentication_service.config.JwtService;
+import com.asheck.smatech_authentication_service.user.Role;
+import com.asheck.smatech_authentication_service.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "BwgJCgsMDQ4PEBESExQVFhcYGRobHB0eHyAhIiMkJSYnKCkqKywtLi8wMTIzNDU2Nzg5Ojs8PT4/QEFCQ0RFRg==";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(SECRET);
+    }
+
+    @Test
+    void testGenerateToken_ShouldMatchJjwtBuilderOutput() {
+        User user = user("john.doe@example.com");
+
+        String token = jwtService.generateToken(user);
+
+        assertEquals(jjwtToken(token, user.getUsername()), token);
+    }
+
+    @Test
+    void testGenerateToken_ShouldBeValidForItsUser() {
+        User user = user("john.doe@example.com");
+
+        String token = jwtService.generateToken(user);
+
+        assertEquals("john.doe@example.com", jwtService.extractUsername(token));
+        assertTrue(jwtService.isTokenValid(token, user));
+    }
+
+    @Test
+    void testGenerateToken_NonAsciiSubject_ShouldMatchJjwtBuilderOutput() {
+        User user = user("jöhn\"doe@example.com");
+
+        String token = jwtService.generateToken(user);
+
+        assertEquals(jjwtToken(token, user.getUsername()), token);
+        assertTrue(jwtService.isTokenValid(token, user));
+    }
+
+    @Test
+    void testGenerateToken_ExtraClaims_ShouldBeReadable() {
+        User user = user("john.doe@example.com");
+
+        String token = jwtService.generateToken(Map.of("role", "CUSTOMER"), user);
+
+        assertEquals("CUSTOMER", jwtService.extractClaim(token, claims -> claims.get("role", String.class)));
+    }
+
+    //Rebuilds the token with the standard jjwt builder using the timestamps the service chose
+    private String jjwtToken(String token, String subject) {
+        Claims claims = jwtService.extractAllClaims(token);
+        return Jwts.builder()
+                .setClaims(new HashMap<>())
+                .setSubject(subject)
+                .setIssuedAt(new Date(claims.getIssuedAt().getTime()))
+                .setExpiration(new Date(claims.getExpiration().getTime()))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private User user(String email) {
+        return User.builder()
+                .id(1L)
+                .firstName("John")
+                .lastName("Doe")
+                .email(email)
+                .password("encodedPassword")
+                .role(Role.CUSTOMER)
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.asheck.smatech_authentication_service;
+
+import com.asheck.smatech_authentication_service.audit.LoginAuditService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginAuditServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private LoginAuditService loginAuditService;
+
+    @BeforeEach
+    void setUp() {
+        loginAuditService = new LoginAuditService(jdbcTemplate, 2, 100);
+    }
+
+    @Test
+    void testRecord_QueueFull_ShouldDropNewestEvents() {
+        loginAuditService.recordFailure(1L, "john.doe@example.com", "10.0.0.1");
+        loginAuditService.recordFailure(1L, "john.doe@example.com", "10.0.0.1");
+        loginAuditService.recordFailure(1L, "john.doe@example.com", "10.0.0.1");
+
+        assertEquals(1, loginAuditService.getDroppedEvents());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_ShouldBatchAuditsAndCoalesceLastLogin() {
+        loginAuditService.recordSuccess(1L, "john.doe@example.com", "10.0.0.1");
+        loginAuditService.recordSuccess(1L, "john.doe@example.com", "10.0.0.1");
+
+        loginAuditService.flush();
+
+        ArgumentCaptor<Collection<Object>> audits = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO login_audit"), audits.capture(), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(2, audits.getValue().size());
+
+        ArgumentCaptor<Collection<Object>> lastLogins = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE _user SET last_login_at"), lastLogins.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1, lastLogins.getValue().size());
+    }
+
+    @Test
+    void testFlush_NothingRecorded_ShouldNotTouchDatabase() {
+        loginAuditService.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testFlush_LoginsArrivingDuringFlush_ShouldStillUpdateLastLogin() {
+        LoginAuditService service = new LoginAuditService(jdbcTemplate, 100, 1);
+        doAnswer(invocation -> {
+            service.recordFailure(2L, "jane.doe@example.com", "10.0.0.2");
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(startsWith("INSERT INTO login_audit"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        service.recordSuccess(1L, "john.doe@example.com", "10.0.0.1");
+        service.recordSuccess(1L, "john.doe@example.com", "10.0.0.1");
+
+        service.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO login_audit"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE _user SET last_login_at"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+}
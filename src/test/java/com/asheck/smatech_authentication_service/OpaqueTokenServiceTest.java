@@ -0,0 +1,126 @@
+package com.asheck.smatech_authentication_service;
+
+import com.asheck.smatech_authentication_service.config.JwtService;
+import com.asheck.smatech_authentication_service.config.OpaqueTokenService;
+import com.asheck.smatech_authentication_service.config.TokenSession;
+import com.asheck.smatech_authentication_service.user.Role;
+import com.asheck.smatech_authentication_service.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpaqueTokenServiceTest {
+
+    private MutableClock clock;
+    private OpaqueTokenService opaqueTokenService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        opaqueTokenService = new OpaqueTokenService(clock);
+    }
+
+    @Test
+    void testIssueToken_ShouldResolveToSession() {
+        String token = opaqueTokenService.issueToken(user(1L, Role.CUSTOMER));
+
+        TokenSession session = opaqueTokenService.resolve(token).orElseThrow();
+
+        assertTrue(OpaqueTokenService.isOpaqueToken(token));
+        assertEquals(1L, session.userId());
+        assertEquals("user1@example.com", session.email());
+        assertEquals(Role.CUSTOMER, session.role());
+    }
+
+    @Test
+    void testResolve_ExpiredToken_ShouldReturnEmpty() {
+        String token = opaqueTokenService.issueToken(user(1L, Role.CUSTOMER));
+
+        clock.advance(JwtService.TOKEN_VALIDITY_MS - 1);
+        assertTrue(opaqueTokenService.resolve(token).isPresent());
+
+        clock.advance(1);
+        assertTrue(opaqueTokenService.resolve(token).isEmpty());
+    }
+
+    @Test
+    void testSweepExpiredSessions_ShouldDropOnlyExpiredSessions() {
+        String expired = opaqueTokenService.issueToken(user(1L, Role.CUSTOMER));
+        clock.advance(JwtService.TOKEN_VALIDITY_MS / 2);
+        String live = opaqueTokenService.issueToken(user(2L, Role.CUSTOMER));
+        clock.advance(JwtService.TOKEN_VALIDITY_MS / 2);
+
+        opaqueTokenService.sweepExpiredSessions();
+
+        clock.advance(-JwtService.TOKEN_VALIDITY_MS);
+        assertTrue(opaqueTokenService.resolve(expired).isEmpty());
+        assertTrue(opaqueTokenService.resolve(live).isPresent());
+    }
+
+    @Test
+    void testRevokeUsers_ShouldDropSessionsOfGivenUsers() {
+        String first = opaqueTokenService.issueToken(user(1L, Role.CUSTOMER));
+        String second = opaqueTokenService.issueToken(user(2L, Role.CUSTOMER));
+        String third = opaqueTokenService.issueToken(user(3L, Role.CUSTOMER));
+
+        opaqueTokenService.revokeUsers(List.of(1L, 3L));
+
+        assertTrue(opaqueTokenService.resolve(first).isEmpty());
+        assertTrue(opaqueTokenService.resolve(second).isPresent());
+        assertTrue(opaqueTokenService.resolve(third).isEmpty());
+    }
+
+    @Test
+    void testRevokeRole_ShouldDropSessionsOfGivenRole() {
+        String customer = opaqueTokenService.issueToken(user(1L, Role.CUSTOMER));
+        String admin = opaqueTokenService.issueToken(user(2L, Role.ADMIN));
+
+        opaqueTokenService.revokeRole(Role.ADMIN);
+
+        assertTrue(opaqueTokenService.resolve(customer).isPresent());
+        assertTrue(opaqueTokenService.resolve(admin).isEmpty());
+    }
+
+    private User user(Long id, Role role) {
+        return User.builder()
+                .id(id)
+                .email("user" + id + "@example.com")
+                .role(role)
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.asheck.smatech_authentication_service;
+
+import com.asheck.smatech_authentication_service.config.JwtAuthenticationFilter;
+import com.asheck.smatech_authentication_service.config.JwtService;
+import com.asheck.smatech_authentication_service.config.OpaqueTokenService;
+import com.asheck.smatech_authentication_service.config.SecurityConfiguration;
+import com.asheck.smatech_authentication_service.events.UserChangeBatch;
+import com.asheck.smatech_authentication_service.events.UserChangeController;
+import com.asheck.smatech_authentication_service.events.UserChangeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UserChangeController.class)
+@Import({SecurityConfiguration.class, JwtAuthenticationFilter.class})
+class UserChangeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserChangeService userChangeService;
+
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private OpaqueTokenService opaqueTokenService;
+
+    @MockitoBean
+    private UserDetailsService userDetailsService;
+
+    @MockitoBean
+    private AuthenticationProvider authenticationProvider;
+
+    @Test
+    void testGetChanges_Anonymous_ShouldBeForbidden() throws Exception {
+        mockMvc.perform(get("/api/v1/auth/user-changes"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userChangeService);
+    }
+
+    @Test
+    void testStreamChanges_Anonymous_ShouldBeForbidden() throws Exception {
+        mockMvc.perform(get("/api/v1/auth/user-changes/stream"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userChangeService);
+    }
+
+    @Test
+    @WithMockUser(authorities = "CUSTOMER")
+    void testStreamChanges_Customer_ShouldBeForbidden() throws Exception {
+        mockMvc.perform(get("/api/v1/auth/user-changes/stream"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userChangeService);
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void testGetChanges_Admin_ShouldBeAllowed() throws Exception {
+        when(userChangeService.getChanges(0, 100)).thenReturn(new UserChangeBatch(List.of(), 0));
+
+        mockMvc.perform(get("/api/v1/auth/user-changes"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void testStreamChanges_TooManyStreams_ShouldReturnServiceUnavailable() throws Exception {
+        when(userChangeService.subscribe(anyLong()))
+                .thenThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open user change streams"));
+
+        mockMvc.perform(get("/api/v1/auth/user-changes/stream"))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
@@ -0,0 +1,231 @@
+package com.asheck.smatech_authentication_service;
+
+import com.asheck.smatech_authentication_service.events.UserChangeBatch;
+import com.asheck.smatech_authentication_service.events.UserChangeEvent;
+import com.asheck.smatech_authentication_service.events.UserChangeEventRepository;
+import com.asheck.smatech_authentication_service.events.UserChangeSequencer;
+import com.asheck.smatech_authentication_service.events.UserChangeService;
+import com.asheck.smatech_authentication_service.events.UserChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(UserChangeSequencer.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserChangeServiceTest {
+
+    private static final int MAX_SUBSCRIBERS = 3;
+
+    @Autowired
+    private UserChangeEventRepository repository;
+
+    @Autowired
+    private UserChangeSequencer sequencer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    private UserChangeService userChangeService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM user_change_event");
+        jdbcTemplate.update("DELETE FROM user_change_sequence");
+        emitters.clear();
+        userChangeService = new UserChangeService(repository, sequencer, Runnable::run, MAX_SUBSCRIBERS) {
+            @Override
+            protected SseEmitter createEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    @Test
+    void testGetChanges_OutOfOrderCommit_ShouldNotSkipEvents() throws Exception {
+        try (Connection slowTransaction = dataSource.getConnection()) {
+            slowTransaction.setAutoCommit(false);
+            try (PreparedStatement insert = slowTransaction.prepareStatement(
+                    "INSERT INTO user_change_event (user_id, type, created_at) VALUES (?, ?, CURRENT_TIMESTAMP)")) {
+                insert.setLong(1, 1L);
+                insert.setString(2, UserChangeType.UPDATED.name());
+                insert.executeUpdate();
+            }
+
+            //Inserted after the slow transaction, so it gets the higher id, but commits first
+            userChangeService.record(2L, UserChangeType.UPDATED);
+            sequencer.assignOffsets();
+
+            UserChangeBatch first = userChangeService.getChanges(0, 100);
+            assertEquals(List.of(2L), userIds(first));
+
+            slowTransaction.commit();
+        }
+        sequencer.assignOffsets();
+
+        UserChangeBatch second = userChangeService.getChanges(1, 100);
+        assertEquals(List.of(1L), userIds(second));
+        assertEquals(2, second.nextOffset());
+    }
+
+    @Test
+    void testGetChanges_UnstampedEvents_ShouldNotBeVisible() {
+        userChangeService.record(1L, UserChangeType.REGISTERED);
+
+        UserChangeBatch batch = userChangeService.getChanges(0, 100);
+
+        assertTrue(batch.events().isEmpty());
+        assertEquals(0, batch.nextOffset());
+    }
+
+    @Test
+    void testPublish_LaggingSubscriber_ShouldNotHoldBackOthers() {
+        recordEvents(600);
+        userChangeService.subscribe(600);
+        userChangeService.subscribe(0);
+        RecordingEmitter upToDate = emitters.get(0);
+        RecordingEmitter lagging = emitters.get(1);
+
+        userChangeService.record(601L, UserChangeType.UPDATED);
+        sequencer.assignOffsets();
+        userChangeService.publish();
+
+        assertEquals(1, upToDate.batches.size());
+        assertEquals(List.of(601L), userIds(upToDate.batches.get(0)));
+        assertEquals(601, upToDate.batches.get(0).nextOffset());
+        assertEquals(1, lagging.batches.size());
+        assertEquals(UserChangeService.MAX_BATCH_SIZE, lagging.batches.get(0).events().size());
+    }
+
+    @Test
+    void testPublish_ShouldAdvanceSubscriberOffset() {
+        recordEvents(2);
+        userChangeService.subscribe(0);
+        RecordingEmitter emitter = emitters.get(0);
+
+        userChangeService.publish();
+        userChangeService.publish();
+
+        assertEquals(1, emitter.batches.size());
+        assertEquals(2, emitter.batches.get(0).nextOffset());
+    }
+
+    @Test
+    void testGetChanges_PrunedOffset_ShouldReturnGone() {
+        recordEvents(3);
+        jdbcTemplate.update("UPDATE user_change_event SET created_at = DATEADD('DAY', -30, CURRENT_TIMESTAMP) WHERE seq <= 2");
+        deleteExpiredEvents();
+
+        ResponseStatusException exception =
+                assertThrows(ResponseStatusException.class, () -> userChangeService.getChanges(0, 100));
+        assertEquals(HttpStatus.GONE, exception.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> userChangeService.subscribe(1));
+
+        assertEquals(List.of(3L), userIds(userChangeService.getChanges(2, 100)));
+    }
+
+    @Test
+    void testGetChanges_AllEventsPruned_ShouldOnlyAcceptLatestOffset() {
+        recordEvents(3);
+        jdbcTemplate.update("UPDATE user_change_event SET created_at = DATEADD('DAY', -30, CURRENT_TIMESTAMP)");
+        deleteExpiredEvents();
+
+        assertThrows(ResponseStatusException.class, () -> userChangeService.getChanges(2, 100));
+        assertTrue(userChangeService.getChanges(3, 100).events().isEmpty());
+    }
+
+    @Test
+    void testPublish_PrunedSubscriber_ShouldBeAskedToResync() {
+        recordEvents(3);
+        userChangeService.subscribe(0);
+        RecordingEmitter emitter = emitters.get(0);
+        jdbcTemplate.update("UPDATE user_change_event SET created_at = DATEADD('DAY', -30, CURRENT_TIMESTAMP) WHERE seq <= 2");
+        deleteExpiredEvents();
+
+        userChangeService.publish();
+
+        assertTrue(emitter.batches.isEmpty());
+        assertEquals(List.of(3L), emitter.resyncOffsets);
+    }
+
+    @Test
+    void testSubscribe_TooManyStreams_ShouldReturnServiceUnavailable() {
+        for (int i = 0; i < MAX_SUBSCRIBERS; i++) {
+            userChangeService.subscribe(0);
+        }
+
+        ResponseStatusException exception =
+                assertThrows(ResponseStatusException.class, () -> userChangeService.subscribe(0));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+    }
+
+    private void recordEvents(int count) {
+        repository.saveAll(IntStream.rangeClosed(1, count)
+                .mapToObj(userId -> UserChangeEvent.builder()
+                        .userId((long) userId)
+                        .type(UserChangeType.UPDATED)
+                        .build())
+                .toList());
+        sequencer.assignOffsets();
+    }
+
+    private void deleteExpiredEvents() {
+        ReflectionTestUtils.setField(userChangeService, "retentionDays", 7L);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> userChangeService.deleteExpiredEvents());
+    }
+
+    private static List<Long> userIds(UserChangeBatch batch) {
+        return batch.events().stream().map(UserChangeEvent::getUserId).toList();
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<UserChangeBatch> batches = new ArrayList<>();
+
+        private final List<Long> resyncOffsets = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().forEach(part -> {
+                if (part.getData() instanceof UserChangeBatch batch) {
+                    batches.add(batch);
+                } else if (part.getData() instanceof Long offset) {
+                    resyncOffsets.add(offset);
+                }
+            });
+        }
+    }
+}
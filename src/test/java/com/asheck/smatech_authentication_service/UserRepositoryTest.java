@@ -0,0 +1,111 @@
+package com.asheck.smatech_authentication_service;
+
+import com.asheck.smatech_authentication_service.audit.LoginAuditService;
+import com.asheck.smatech_authentication_service.user.Role;
+import com.asheck.smatech_authentication_service.user.User;
+import com.asheck.smatech_authentication_service.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User first;
+    private User second;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        first = userRepository.save(customer("john.doe@example.com"));
+        second = userRepository.save(customer("jane.doe@example.com"));
+    }
+
+    @Test
+    void testCollectionEtag_ShouldChangeOnEveryCommittedUpdate() {
+        String initial = collectionEtag();
+
+        //The later of two changes can carry the older updatedAt, the version sum still moves
+        jdbcTemplate.update("UPDATE _user SET updated_at = updated_at - INTERVAL '1' DAY WHERE id = ?", first.getId());
+        first = userRepository.findById(first.getId()).orElseThrow();
+        first.setAddress("1 New Street");
+        userRepository.save(first);
+        String afterEntityUpdate = collectionEtag();
+
+        transactional(() -> userRepository.updateIsActiveByIdIn(List.of(second.getId()), false));
+        String afterBulkUpdate = collectionEtag();
+
+        assertNotEquals(initial, afterEntityUpdate);
+        assertNotEquals(afterEntityUpdate, afterBulkUpdate);
+    }
+
+    @Test
+    void testUserEtag_ShouldChangeOnBulkUpdate() {
+        String before = userEtag(first);
+
+        transactional(() -> userRepository.updateRoleByRole(Role.CUSTOMER, Role.ADMIN));
+
+        assertNotEquals(before, userRepository.findVersionByIdAndRole(first.getId(), Role.ADMIN).orElseThrow().toEtag());
+    }
+
+    @Test
+    void testUserEtag_ShouldChangeWhenLastLoginIsRecorded() {
+        String firstBefore = userEtag(first);
+        String secondBefore = userEtag(second);
+        LoginAuditService loginAuditService = new LoginAuditService(jdbcTemplate, 10, 10);
+
+        loginAuditService.recordSuccess(first.getId(), first.getEmail(), "10.0.0.1");
+        loginAuditService.flush();
+
+        assertNotEquals(firstBefore, userEtag(first));
+        assertEquals(secondBefore, userEtag(second));
+    }
+
+    private String userEtag(User user) {
+        return userRepository.findVersionByIdAndRole(user.getId(), Role.CUSTOMER).orElseThrow().toEtag();
+    }
+
+    private String collectionEtag() {
+        return userRepository.findCollectionVersionByRole(Role.CUSTOMER).toEtag();
+    }
+
+    private void transactional(Runnable update) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> update.run());
+    }
+
+    private User customer(String email) {
+        return User.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .phoneNumber("123456789")
+                .email(email)
+                .password("encodedPassword")
+                .isActive(true)
+                .isDeleted(false)
+                .role(Role.CUSTOMER)
+                .build();
+    }
+}